@@ -0,0 +1,27 @@
+package org.yong.model;
+
+import lombok.Data;
+
+@Data
+public class IngestCheckpoint {
+
+    /**
+     * 文件绝对路径
+     */
+    private String path;
+
+    /**
+     * 文件大小 字节
+     */
+    private Long size;
+
+    /**
+     * 文件最后修改时间 毫秒
+     */
+    private Long lastModified;
+
+    /**
+     * 文件内容的sha256
+     */
+    private String contentHash;
+}
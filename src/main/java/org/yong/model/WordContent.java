@@ -16,4 +16,9 @@ public class WordContent {
      * 抽取的表格对象
      */
     private List<WordTable> wordTableList;
+
+    /**
+     * 抽取的段落对象 不包括表格中的段落
+     */
+    private List<WordParagraph> wordParagraphList;
 }
@@ -0,0 +1,27 @@
+package org.yong.model;
+
+import lombok.Data;
+
+@Data
+public class WordParagraph {
+
+    /**
+     * 段落文字 已去除首尾不可见字符
+     */
+    private String text;
+
+    /**
+     * 段落中占比最多的字号 取不到时默认为12
+     */
+    private Float fontSize;
+
+    /**
+     * 超过一半的文字为粗体
+     */
+    private Boolean bold;
+
+    /**
+     * 超过一半的文字为斜体
+     */
+    private Boolean italic;
+}
@@ -16,10 +16,20 @@ public class WordTableCell {
     private String text;
 
     /**
-     * 默认为12
+     * 单元格中占比最多的字号 取不到时默认为12
      */
     private Float fontSize;
 
+    /**
+     * 超过一半的文字为粗体
+     */
+    private Boolean bold;
+
+    /**
+     * 超过一半的文字为斜体
+     */
+    private Boolean italic;
+
     /**
      * 行号 0开始
      */
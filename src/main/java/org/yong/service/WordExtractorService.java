@@ -15,5 +15,15 @@ public interface WordExtractorService {
     WordContent adaptDocxToPdfTable(BufferedInputStream in) throws IOException;
 
     WordContent adaptDocToPdfTable(BufferedInputStream in) throws IOException;
-    
+
+    /**
+     * 根据文件头判断doc还是docx 不依赖扩展名
+     */
+    WordContent extract(File file) throws IOException;
+
+    /**
+     * 根据流的文件头判断doc还是docx 流必须支持mark
+     */
+    WordContent extract(BufferedInputStream in) throws IOException;
+
 }
@@ -0,0 +1,11 @@
+package org.yong.service;
+
+import java.io.IOException;
+
+public interface WordIngestionService {
+
+    void start() throws IOException;
+
+    void stop();
+
+}
@@ -4,31 +4,51 @@ import java.io.BufferedInputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 import org.apache.commons.lang3.StringUtils;
-import org.apache.commons.lang3.tuple.Pair;
+import org.apache.commons.lang3.tuple.Triple;
+import org.apache.poi.POIXMLTypeLoader;
 import org.apache.poi.hwpf.HWPFDocument;
+import org.apache.poi.hwpf.usermodel.CharacterRun;
 import org.apache.poi.hwpf.usermodel.Paragraph;
 import org.apache.poi.hwpf.usermodel.Range;
 import org.apache.poi.hwpf.usermodel.Table;
 import org.apache.poi.hwpf.usermodel.TableCell;
 import org.apache.poi.hwpf.usermodel.TableIterator;
 import org.apache.poi.hwpf.usermodel.TableRow;
+import org.apache.poi.poifs.filesystem.FileMagic;
+import org.apache.poi.poifs.filesystem.NPOIFSFileSystem;
 import org.apache.poi.xwpf.usermodel.IBodyElement;
 import org.apache.poi.xwpf.usermodel.XWPFDocument;
 import org.apache.poi.xwpf.usermodel.XWPFParagraph;
+import org.apache.poi.xwpf.usermodel.XWPFRun;
+import org.apache.poi.xwpf.usermodel.XWPFStyle;
+import org.apache.poi.xwpf.usermodel.XWPFStyles;
 import org.apache.poi.xwpf.usermodel.XWPFTable;
 import org.apache.poi.xwpf.usermodel.XWPFTableCell;
+import org.apache.xmlbeans.XmlException;
+import org.openxmlformats.schemas.wordprocessingml.x2006.main.CTOnOff;
+import org.openxmlformats.schemas.wordprocessingml.x2006.main.CTRPr;
+import org.openxmlformats.schemas.wordprocessingml.x2006.main.CTStyle;
+import org.openxmlformats.schemas.wordprocessingml.x2006.main.CTStyles;
 import org.openxmlformats.schemas.wordprocessingml.x2006.main.CTTblGridCol;
 import org.openxmlformats.schemas.wordprocessingml.x2006.main.CTTcPr;
+import org.openxmlformats.schemas.wordprocessingml.x2006.main.STOnOff;
+import org.openxmlformats.schemas.wordprocessingml.x2006.main.STStyleType;
+import org.openxmlformats.schemas.wordprocessingml.x2006.main.StylesDocument;
 import org.yong.model.WordContent;
+import org.yong.model.WordParagraph;
 import org.yong.model.WordTable;
 import org.yong.model.WordTableCell;
 import org.yong.service.WordExtractorService;
@@ -54,7 +74,7 @@ public class WordExtractorServiceImpl implements WordExtractorService {
     private static final int DEFAULT_DIV = 1;
 
     /**
-     * 目前没有提取word的字体大小 默认为12
+     * 取不到word的字体大小时 默认为12
      */
     private static final Float DEFAULT_FONT_SIZE = 12.0F;
 
@@ -85,6 +105,21 @@ public class WordExtractorServiceImpl implements WordExtractorService {
 
     private static final String regexClearBeginBlank = "^" + splitter + "*|" + splitter + "*$";
 
+    /**
+     * doc文件中存放正文的ole2流名称
+     */
+    private static final String HWPF_WORD_DOCUMENT_ENTRY = "WordDocument";
+
+    /**
+     * 判断html、xml时读取的字节数
+     */
+    private static final int TEXT_SNIFF_LENGTH = 64;
+
+    /**
+     * utf-8的BOM按ISO_8859_1解码后的字符串
+     */
+    private static final String UTF8_BOM = "\u00EF\u00BB\u00BF";
+
     @Override
     public WordContent adaptDocxToPdfTable(File file) throws IOException {
         XWPFDocument docx = new XWPFDocument(new FileInputStream(file.getAbsoluteFile()));
@@ -109,27 +144,89 @@ public class WordExtractorServiceImpl implements WordExtractorService {
         return getWordContentByDoc(doc);
     }
 
+    @Override
+    public WordContent extract(File file) throws IOException {
+        try (BufferedInputStream in = new BufferedInputStream(new FileInputStream(file.getAbsoluteFile()))) {
+            return this.extract(in);
+        }
+    }
+
+    @Override
+    public WordContent extract(BufferedInputStream in) throws IOException {
+        // 只读取前8个字节判断格式 然后reset 流只会被解析一次
+        FileMagic fileMagic = FileMagic.valueOf(in);
+        switch (fileMagic) {
+            case OOXML:
+                return getWordContentByDocx(new XWPFDocument(in));
+            case OLE2:
+                try (NPOIFSFileSystem fs = new NPOIFSFileSystem(in)) {
+                    // ole2也可能是xls、ppt等 没有WordDocument流的直接拒绝
+                    if (!fs.getRoot().hasEntry(HWPF_WORD_DOCUMENT_ENTRY)) {
+                        throw new IOException("该ole2文件不是word文档");
+                    }
+                    return getWordContentByDoc(new HWPFDocument(fs.getRoot()));
+                }
+            case XML:
+            case RTF:
+                // 另存为xml、rtf、html的文件经常被改成.doc 直接拒绝 不做解析
+                throw new IOException("不支持的word格式: " + fileMagic);
+            default:
+                // FileMagic不识别html 以及带BOM的xml
+                String textFormat = sniffTextFormat(in);
+                if (textFormat != null) {
+                    throw new IOException("不支持的word格式: " + textFormat);
+                }
+                throw new IOException("无法识别的文件格式: " + fileMagic);
+        }
+    }
+
+    /**
+     * 跳过BOM和空白后 判断是否为html或xml 流会被reset
+     */
+    private static String sniffTextFormat(BufferedInputStream in) throws IOException {
+        byte[] header = new byte[TEXT_SNIFF_LENGTH];
+        in.mark(TEXT_SNIFF_LENGTH);
+        int length = 0;
+        int read;
+        while (length < header.length && (read = in.read(header, length, header.length - length)) > 0) {
+            length += read;
+        }
+        in.reset();
+        String head = new String(header, 0, length, StandardCharsets.ISO_8859_1).replace(UTF8_BOM, "").trim()
+                .toLowerCase();
+        if (head.startsWith("<html") || head.startsWith("<!doctype")) {
+            return "HTML";
+        }
+        if (head.startsWith("<?xml")) {
+            return "XML";
+        }
+        return null;
+    }
+
     private WordContent getWordContentByDoc(HWPFDocument doc) throws IOException {
-        Pair<String, List<WordTable>> pair = this.getDocTableCell(doc);
+        Triple<String, List<WordTable>, List<WordParagraph>> triple = this.getDocTableCell(doc);
         WordContent wordContent = new WordContent();
-        wordContent.setText(pair.getLeft());
-        wordContent.setWordTableList(pair.getRight());
+        wordContent.setText(triple.getLeft());
+        wordContent.setWordTableList(triple.getMiddle());
+        wordContent.setWordParagraphList(triple.getRight());
         return wordContent;
     }
 
     private WordContent getWordContentByDocx(XWPFDocument docx) throws IOException {
-        Pair<String, List<WordTable>> pair = this.getDocxTableCell(docx);
+        Triple<String, List<WordTable>, List<WordParagraph>> triple = this.getDocxTableCell(docx);
         WordContent wordContent = new WordContent();
-        wordContent.setText(pair.getLeft());
-        wordContent.setWordTableList(pair.getRight());
+        wordContent.setText(triple.getLeft());
+        wordContent.setWordTableList(triple.getMiddle());
+        wordContent.setWordParagraphList(triple.getRight());
         return wordContent;
     }
 
     /**
      * 解析doc表格 得到结构对象 其中返回的String不包括表格中抽取的文字
      * 这里默认对单元格中的文字做去换行操作
+     * 字号、粗体、斜体在遍历段落时从CharacterRun中一并统计 CharacterRun已经合并了样式
      */
-    private Pair<String, List<WordTable>> getDocTableCell(HWPFDocument doc) {
+    private Triple<String, List<WordTable>, List<WordParagraph>> getDocTableCell(HWPFDocument doc) {
         List<WordTable> allWordTableCellList = new ArrayList<>();
         // 得到文档的读取范围
         Range range = doc.getRange();
@@ -155,13 +252,14 @@ public class WordExtractorServiceImpl implements WordExtractorService {
                             height = currentRowHeight;
                         }
                         StringBuilder text = new StringBuilder();
+                        FontStat fontStat = new FontStat();
                         for (int k = 0; k < cell.numParagraphs(); k++) {
                             Paragraph para = cell.getParagraph(k);
                             text.append(para.text());
+                            collectDocFont(para, fontStat);
                         }
                         WordTableCell wordTableCell = this
-                                .buildWordCellContent((float) height, (float) width, text.toString(), DEFAULT_FONT_SIZE,
-                                        x, y);
+                                .buildWordCellContent((float) height, (float) width, text.toString(), fontStat, x, y);
                         wordTableCellList.add(wordTableCell);
                     }
                     x += width;
@@ -180,6 +278,7 @@ public class WordExtractorServiceImpl implements WordExtractorService {
         allWordTableCellList.forEach(this::fillSpan);
         // 开始抽取doc中的文字
         StringBuilder docText = new StringBuilder();
+        List<WordParagraph> wordParagraphList = new ArrayList<>();
         for (int i = 0; i < range.numParagraphs(); i++) {
             Paragraph paragraph = range.getParagraph(i);
             // 拿出段落中不包括表格的文字
@@ -188,9 +287,11 @@ public class WordExtractorServiceImpl implements WordExtractorService {
                 if (StringUtils.isBlank(text)) {
                     continue;
                 }
-                String textWithSameBlankAndBreak = text.replaceAll(WORD_BLANK, " ").replaceAll(WORD_LINE_BREAK, "\n");
-                String clearBeginBlank = textWithSameBlankAndBreak.replaceAll(regexClearBeginBlank, "");
-                docText.append(clearBeginBlank).append("\n");
+                String clearText = normalizeText(text, false);
+                docText.append(clearText).append("\n");
+                FontStat fontStat = new FontStat();
+                collectDocFont(paragraph, fontStat);
+                wordParagraphList.add(this.buildWordParagraph(clearText, fontStat));
             } else {
                 try {
                     // 寻找表格的开始位置和结束位置
@@ -217,14 +318,16 @@ public class WordExtractorServiceImpl implements WordExtractorService {
                 }
             }
         }
-        return Pair.of(docText.toString(), allWordTableCellList);
+        return Triple.of(docText.toString(), allWordTableCellList, wordParagraphList);
     }
 
     /**
      * 解析docx表格 得到结构对象
+     * 字号、粗体、斜体在遍历段落时从run中一并统计 样式按id每篇文档只解析一次
      */
-    private Pair<String, List<WordTable>> getDocxTableCell(XWPFDocument docx) {
+    private Triple<String, List<WordTable>, List<WordParagraph>> getDocxTableCell(XWPFDocument docx) {
         List<WordTable> allWordTableCellList = new ArrayList<>();
+        DocxStyleResolver styleResolver = new DocxStyleResolver(docx);
         Iterator<XWPFTable> it = docx.getTablesIterator();
         // 抽取表中的文字集合
         List<String> originTableTextList = new ArrayList<>();
@@ -274,9 +377,13 @@ public class WordExtractorServiceImpl implements WordExtractorService {
 
                             if (!docxIsContinue(cell)) {
                                 int height = this.getDocxCellHeight(table, currentRowHeight, i, j);
+                                FontStat fontStat = new FontStat();
+                                for (XWPFParagraph paragraph : cell.getParagraphs()) {
+                                    collectDocxFont(paragraph, styleResolver, fontStat);
+                                }
                                 WordTableCell wordTableCell = this
-                                        .buildWordCellContent((float) height, (float) width, cell.getText(),
-                                                DEFAULT_FONT_SIZE, x, y);
+                                        .buildWordCellContent((float) height, (float) width, cell.getText(), fontStat,
+                                                x, y);
                                 wordTableCellList.add(wordTableCell);
                             }
                             x += width;
@@ -302,9 +409,13 @@ public class WordExtractorServiceImpl implements WordExtractorService {
                             }
                             if (!docxIsContinue(cell)) {
                                 int height = this.getDocxCellHeight(table, currentRowHeight, i, j);
+                                FontStat fontStat = new FontStat();
+                                for (XWPFParagraph paragraph : cell.getParagraphs()) {
+                                    collectDocxFont(paragraph, styleResolver, fontStat);
+                                }
                                 WordTableCell wordTableCell = this
-                                        .buildWordCellContent((float) height, (float) width, cell.getText(),
-                                                DEFAULT_FONT_SIZE, x, y);
+                                        .buildWordCellContent((float) height, (float) width, cell.getText(), fontStat,
+                                                x, y);
                                 wordTableCellList.add(wordTableCell);
                             }
                             x += width;
@@ -333,6 +444,7 @@ public class WordExtractorServiceImpl implements WordExtractorService {
         allWordTableCellList.forEach(this::fillSpan);
         // 读取docx文字部分
         StringBuilder docxText = new StringBuilder();
+        List<WordParagraph> wordParagraphList = new ArrayList<>();
         Iterator<IBodyElement> iter = docx.getBodyElementsIterator();
         int count = 0;
         while (iter.hasNext()) {
@@ -344,13 +456,12 @@ public class WordExtractorServiceImpl implements WordExtractorService {
                 if (StringUtils.isBlank(text)) {
                     continue;
                 }
-                // 将word中的特有字符转化为普通的换行符、空格符等
-                String textWithSameBlankAndBreak = text.replaceAll(WORD_BLANK, " ").replaceAll(WORD_LINE_BREAK, "\n")
-                        .replaceAll("\n+", "\n");
-                // 去除word特有的不可见字符
-                String textClearBeginBlank = textWithSameBlankAndBreak.replaceAll(regexClearBeginBlank, "");
                 // 为抽取的每一个段落加上\n作为换行符标识
-                docxText.append(textClearBeginBlank).append("\n");
+                String clearText = normalizeText(text, true);
+                docxText.append(clearText).append("\n");
+                FontStat fontStat = new FontStat();
+                collectDocxFont(paragraph, styleResolver, fontStat);
+                wordParagraphList.add(this.buildWordParagraph(clearText, fontStat));
             } else if (element instanceof XWPFTable) {
                 try {
                     // 获取表格中的原始文字 默认文字中不加入表格文字 取消注释可加入
@@ -362,21 +473,73 @@ public class WordExtractorServiceImpl implements WordExtractorService {
                 }
             }
         }
-        return Pair.of(docxText.toString(), allWordTableCellList);
+        return Triple.of(docxText.toString(), allWordTableCellList, wordParagraphList);
     }
 
-    private WordTableCell buildWordCellContent(Float height, Float width, String text, Float fontSize, Float x,
+    /**
+     * 将word中的特有字符转化为普通的换行符、空格符等 并去除首尾不可见字符
+     * mergeLineBreak为true时连续换行合并为一个
+     */
+    String normalizeText(String text, boolean mergeLineBreak) {
+        String textWithSameBlankAndBreak = text.replaceAll(WORD_BLANK, " ").replaceAll(WORD_LINE_BREAK, "\n");
+        if (mergeLineBreak) {
+            textWithSameBlankAndBreak = textWithSameBlankAndBreak.replaceAll("\n+", "\n");
+        }
+        return textWithSameBlankAndBreak.replaceAll(regexClearBeginBlank, "");
+    }
+
+    private WordTableCell buildWordCellContent(Float height, Float width, String text, FontStat fontStat, Float x,
                                                Float y) {
         WordTableCell wordTableCell = new WordTableCell();
         wordTableCell.setHeight(height);
         wordTableCell.setWidth(width);
         wordTableCell.setText(text);
-        wordTableCell.setFontSize(fontSize);
+        wordTableCell.setFontSize(fontStat.getFontSize());
+        wordTableCell.setBold(fontStat.isBold());
+        wordTableCell.setItalic(fontStat.isItalic());
         wordTableCell.setX(x);
         wordTableCell.setY(y);
         return wordTableCell;
     }
 
+    private WordParagraph buildWordParagraph(String text, FontStat fontStat) {
+        WordParagraph wordParagraph = new WordParagraph();
+        wordParagraph.setText(text);
+        wordParagraph.setFontSize(fontStat.getFontSize());
+        wordParagraph.setBold(fontStat.isBold());
+        wordParagraph.setItalic(fontStat.isItalic());
+        return wordParagraph;
+    }
+
+    /**
+     * doc方法 CharacterRun的字号是半磅
+     */
+    private void collectDocFont(Paragraph paragraph, FontStat fontStat) {
+        for (int i = 0; i < paragraph.numCharacterRuns(); i++) {
+            CharacterRun run = paragraph.getCharacterRun(i);
+            float fontSize = run.getFontSize() > 0 ? run.getFontSize() / 2.0F : DEFAULT_FONT_SIZE;
+            fontStat.add(fontSize, run.isBold(), run.isItalic(), run.getEndOffset() - run.getStartOffset());
+        }
+    }
+
+    /**
+     * docx方法 优先级 run直接格式 > 字符样式 > 段落样式 > 文档默认
+     */
+    private void collectDocxFont(XWPFParagraph paragraph, DocxStyleResolver styleResolver, FontStat fontStat) {
+        StyleFont paragraphFont = styleResolver.resolveParagraph(paragraph.getStyleID());
+        for (XWPFRun run : paragraph.getRuns()) {
+            StyleFont runFont = paragraphFont;
+            CTRPr rPr = run.getCTR().getRPr();
+            if (rPr != null) {
+                if (rPr.isSetRStyle()) {
+                    runFont = runFont.merge(styleResolver.resolve(rPr.getRStyle().getVal()));
+                }
+                runFont = runFont.merge(rPr);
+            }
+            fontStat.add(runFont, run.text().length());
+        }
+    }
+
     private int getDocCellToLeftWidth(Table table, int row, int col) {
         int leftWidth = 0;
         for (int i = 0; i < col; i++) {
@@ -535,7 +698,7 @@ public class WordExtractorServiceImpl implements WordExtractorService {
     /**
      * 根据每个表格的row col rowspan colspan
      */
-    private void fillSpan(WordTable wordTable) {
+    void fillSpan(WordTable wordTable) {
         // 获取行、列宽度list
         Set<Float> rowYSet = new HashSet<>();
         Set<Float> colXSet = new HashSet<>();
@@ -591,6 +754,206 @@ public class WordExtractorServiceImpl implements WordExtractorService {
 
     }
 
+    /**
+     * 按文字数量统计字体 字号取占比最多的 粗体、斜体超过一半才算
+     */
+    private static final class FontStat {
+
+        private final Map<Float, Integer> fontSizeCharsMap = new HashMap<>(4);
+
+        private int boldChars;
+
+        private int italicChars;
+
+        private int totalChars;
+
+        void add(float fontSize, boolean bold, boolean italic, int chars) {
+            if (chars <= 0) {
+                return;
+            }
+            fontSizeCharsMap.merge(fontSize, chars, Integer::sum);
+            if (bold) {
+                boldChars += chars;
+            }
+            if (italic) {
+                italicChars += chars;
+            }
+            totalChars += chars;
+        }
+
+        void add(StyleFont styleFont, int chars) {
+            float fontSize = styleFont.fontSize == null ? DEFAULT_FONT_SIZE : styleFont.fontSize;
+            this.add(fontSize, Boolean.TRUE.equals(styleFont.bold), Boolean.TRUE.equals(styleFont.italic), chars);
+        }
+
+        Float getFontSize() {
+            Float fontSize = DEFAULT_FONT_SIZE;
+            int maxChars = 0;
+            for (Map.Entry<Float, Integer> entry : fontSizeCharsMap.entrySet()) {
+                if (entry.getValue() > maxChars) {
+                    fontSize = entry.getKey();
+                    maxChars = entry.getValue();
+                }
+            }
+            return fontSize;
+        }
+
+        boolean isBold() {
+            return boldChars * 2 > totalChars;
+        }
+
+        boolean isItalic() {
+            return italicChars * 2 > totalChars;
+        }
+    }
+
+    /**
+     * docx样式中的字体 null表示该样式没有设置 由上一级决定
+     */
+    private static final class StyleFont {
+
+        private static final StyleFont EMPTY = new StyleFont(null, null, null);
+
+        private final Float fontSize;
+
+        private final Boolean bold;
+
+        private final Boolean italic;
+
+        StyleFont(Float fontSize, Boolean bold, Boolean italic) {
+            this.fontSize = fontSize;
+            this.bold = bold;
+            this.italic = italic;
+        }
+
+        /**
+         * other中设置了的属性覆盖当前属性
+         */
+        StyleFont merge(StyleFont other) {
+            if (other == EMPTY) {
+                return this;
+            }
+            return new StyleFont(other.fontSize != null ? other.fontSize : fontSize,
+                    other.bold != null ? other.bold : bold, other.italic != null ? other.italic : italic);
+        }
+
+        /**
+         * rPr中的sz是半磅
+         */
+        StyleFont merge(CTRPr rPr) {
+            if (rPr == null || (!rPr.isSetSz() && !rPr.isSetB() && !rPr.isSetI())) {
+                return this;
+            }
+            // 三元表达式两边都用包装类型 避免未设置的null被拆箱
+            Float size = rPr.isSetSz() ? Float.valueOf(rPr.getSz().getVal().floatValue() / 2) : fontSize;
+            Boolean b = rPr.isSetB() ? Boolean.valueOf(isOn(rPr.getB())) : bold;
+            Boolean i = rPr.isSetI() ? Boolean.valueOf(isOn(rPr.getI())) : italic;
+            return new StyleFont(size, b, i);
+        }
+
+        private static boolean isOn(CTOnOff onOff) {
+            return !onOff.isSetVal() || isOn(onOff.getVal());
+        }
+
+        private static boolean isOn(STOnOff.Enum val) {
+            return val == STOnOff.TRUE || val == STOnOff.ON || val == STOnOff.X_1;
+        }
+    }
+
+    /**
+     * 每篇docx一个 样式按id解析一次后缓存 basedOn继承链不会每个run重复解析
+     * 没有styles.xml的docx所有样式都按StyleFont.EMPTY处理
+     */
+    private static final class DocxStyleResolver {
+
+        private final XWPFStyles styles;
+
+        private final Map<String, StyleFont> styleFontCache = new HashMap<>();
+
+        private final Map<String, StyleFont> paragraphFontCache = new HashMap<>();
+
+        private StyleFont defaultFont = StyleFont.EMPTY;
+
+        private String defaultParagraphStyleId;
+
+        DocxStyleResolver(XWPFDocument docx) {
+            this.styles = docx.getStyles();
+            if (styles == null) {
+                log.info("该docx没有样式");
+                return;
+            }
+            CTStyles ctStyles = this.readCTStyles();
+            if (ctStyles == null) {
+                return;
+            }
+            if (ctStyles.isSetDocDefaults() && ctStyles.getDocDefaults().isSetRPrDefault()
+                    && ctStyles.getDocDefaults().getRPrDefault().isSetRPr()) {
+                defaultFont = StyleFont.EMPTY.merge(ctStyles.getDocDefaults().getRPrDefault().getRPr());
+            }
+            for (CTStyle ctStyle : ctStyles.getStyleList()) {
+                // 没有pStyle的段落使用默认段落样式
+                if (ctStyle.getType() == STStyleType.PARAGRAPH && ctStyle.isSetDefault()
+                        && StyleFont.isOn(ctStyle.getDefault())) {
+                    defaultParagraphStyleId = ctStyle.getStyleId();
+                    break;
+                }
+            }
+        }
+
+        /**
+         * XWPFStyles没有公开docDefaults和默认段落样式 直接读取styles.xml 默认段落样式的id因语言而异 不能按id查找
+         */
+        private CTStyles readCTStyles() {
+            try (InputStream in = styles.getPackagePart().getInputStream()) {
+                return StylesDocument.Factory.parse(in, POIXMLTypeLoader.DEFAULT_XML_OPTIONS).getStyles();
+            } catch (IOException | XmlException e) {
+                log.error("读取docx样式失败", e);
+                return null;
+            }
+        }
+
+        /**
+         * 文档默认字体合并段落样式
+         */
+        StyleFont resolveParagraph(String styleId) {
+            String paragraphStyleId = styleId == null ? defaultParagraphStyleId : styleId;
+            if (paragraphStyleId == null) {
+                return defaultFont;
+            }
+            StyleFont styleFont = paragraphFontCache.get(paragraphStyleId);
+            if (styleFont == null) {
+                styleFont = defaultFont.merge(this.resolve(paragraphStyleId));
+                paragraphFontCache.put(paragraphStyleId, styleFont);
+            }
+            return styleFont;
+        }
+
+        /**
+         * 只包括样式自身及basedOn继承的字体
+         */
+        StyleFont resolve(String styleId) {
+            if (styleId == null) {
+                return StyleFont.EMPTY;
+            }
+            StyleFont styleFont = styleFontCache.get(styleId);
+            if (styleFont != null) {
+                return styleFont;
+            }
+            // 先放入EMPTY 防止basedOn循环引用
+            styleFontCache.put(styleId, StyleFont.EMPTY);
+            styleFont = StyleFont.EMPTY;
+            XWPFStyle style = styles == null ? null : styles.getStyle(styleId);
+            if (style != null) {
+                CTStyle ctStyle = style.getCTStyle();
+                StyleFont baseFont = ctStyle.isSetBasedOn() ? this.resolve(ctStyle.getBasedOn().getVal())
+                        : StyleFont.EMPTY;
+                styleFont = baseFont.merge(ctStyle.isSetRPr() ? ctStyle.getRPr() : null);
+            }
+            styleFontCache.put(styleId, styleFont);
+            return styleFont;
+        }
+    }
+
     public static void main(String[] args) {
         // 顺序 Y00003B_rep
         File file = new File("/Users/xuboyong/Desktop/申请人.docx");
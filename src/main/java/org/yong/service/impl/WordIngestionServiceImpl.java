@@ -0,0 +1,420 @@
+package org.yong.service.impl;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_CREATE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_MODIFY;
+import static java.nio.file.StandardWatchEventKinds.OVERFLOW;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BiConsumer;
+
+import org.apache.commons.codec.digest.DigestUtils;
+import org.yong.model.IngestCheckpoint;
+import org.yong.model.WordContent;
+import org.yong.service.WordExtractorService;
+import org.yong.service.WordIngestionService;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 监听目录 增量抽取新增或修改的doc、docx
+ * 抽取完成的文件记录在checkpoint文件中(path, size, mtime, hash) 重启后跳过已完成的文件
+ */
+@Slf4j
+public class WordIngestionServiceImpl implements WordIngestionService {
+
+    /**
+     * 文件写入停止多久后才开始抽取 毫秒
+     */
+    private static final long DEFAULT_DEBOUNCE_MILLIS = 2000L;
+
+    /**
+     * 抽取线程池等待队列长度
+     */
+    private static final int DEFAULT_QUEUE_CAPACITY = 256;
+
+    /**
+     * 停止时等待正在抽取的任务结束的时间 秒
+     */
+    private static final long SHUTDOWN_TIMEOUT_SECONDS = 30L;
+
+    /**
+     * checkpoint文件每行的分隔符
+     */
+    private static final String CHECKPOINT_SEPARATOR = "\t";
+
+    private final WordExtractorService wordExtractorService;
+
+    private final Path watchDir;
+
+    private final Path checkpointFile;
+
+    private final int poolSize;
+
+    private final long debounceMillis;
+
+    private final int queueCapacity;
+
+    private final BiConsumer<Path, WordContent> handler;
+
+    /**
+     * key为文件绝对路径
+     */
+    private final Map<String, IngestCheckpoint> checkpointMap = new ConcurrentHashMap<>();
+
+    /**
+     * 等待写入完成的文件
+     */
+    private final Map<Path, ScheduledFuture<?>> pendingMap = new ConcurrentHashMap<>();
+
+    /**
+     * 正在抽取的文件 同一文件不并发抽取
+     */
+    private final Set<Path> inFlightSet = ConcurrentHashMap.newKeySet();
+
+    /**
+     * checkpoint有未写入文件的变化
+     */
+    private final AtomicBoolean checkpointDirty = new AtomicBoolean();
+
+    /**
+     * 只保护checkpoint文件的写入 不能用this 否则stop等待抽取线程时会互相阻塞
+     */
+    private final Object checkpointLock = new Object();
+
+    private ScheduledThreadPoolExecutor debounceExecutor;
+
+    private ThreadPoolExecutor extractExecutor;
+
+    private WatchService watchService;
+
+    private Thread watchThread;
+
+    private volatile boolean running;
+
+    public WordIngestionServiceImpl(WordExtractorService wordExtractorService, Path watchDir, Path checkpointFile,
+                                    int poolSize, BiConsumer<Path, WordContent> handler) {
+        this(wordExtractorService, watchDir, checkpointFile, poolSize, DEFAULT_DEBOUNCE_MILLIS, handler);
+    }
+
+    public WordIngestionServiceImpl(WordExtractorService wordExtractorService, Path watchDir, Path checkpointFile,
+                                    int poolSize, long debounceMillis, BiConsumer<Path, WordContent> handler) {
+        this(wordExtractorService, watchDir, checkpointFile, poolSize, DEFAULT_QUEUE_CAPACITY, debounceMillis,
+                handler);
+    }
+
+    WordIngestionServiceImpl(WordExtractorService wordExtractorService, Path watchDir, Path checkpointFile,
+                             int poolSize, int queueCapacity, long debounceMillis,
+                             BiConsumer<Path, WordContent> handler) {
+        if (poolSize < 1 || queueCapacity < 1) {
+            throw new IllegalArgumentException("poolSize和queueCapacity必须大于0");
+        }
+        this.wordExtractorService = wordExtractorService;
+        this.watchDir = watchDir.toAbsolutePath();
+        this.checkpointFile = checkpointFile.toAbsolutePath();
+        this.poolSize = poolSize;
+        this.debounceMillis = debounceMillis;
+        this.queueCapacity = queueCapacity;
+        this.handler = handler;
+    }
+
+    @Override
+    public synchronized void start() throws IOException {
+        if (running) {
+            return;
+        }
+        this.loadCheckpoint();
+        watchService = FileSystems.getDefault().newWatchService();
+        watchDir.register(watchService, ENTRY_CREATE, ENTRY_MODIFY);
+        debounceExecutor = new ScheduledThreadPoolExecutor(1, r -> new Thread(r, "word-ingestion-debounce"));
+        // stop时丢弃还没到时间的计时 正在执行的任务照常完成
+        debounceExecutor.setExecuteExistingDelayedTasksAfterShutdownPolicy(false);
+        // 队列满时由debounce线程自己执行 起到限流作用
+        extractExecutor = new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), r -> new Thread(r, "word-ingestion-extract"),
+                new ThreadPoolExecutor.CallerRunsPolicy());
+        running = true;
+        // checkpoint批量写入 每个debounce周期最多写一次
+        debounceExecutor.scheduleWithFixedDelay(this::flushCheckpoint, debounceMillis, debounceMillis,
+                TimeUnit.MILLISECONDS);
+        // 启动前已经存在的文件 未变化的会被checkpoint跳过
+        this.scanDirectory();
+        watchThread = new Thread(this::watchLoop, "word-ingestion-watcher");
+        watchThread.start();
+        log.info("开始监听目录 {}", watchDir);
+    }
+
+    @Override
+    public synchronized void stop() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        try {
+            watchService.close();
+        } catch (IOException e) {
+            log.error("关闭WatchService失败", e);
+        }
+        // 队列满时抽取在debounce线程上执行 先等它结束 再关闭抽取线程池 最后写checkpoint
+        debounceExecutor.shutdown();
+        try {
+            if (!debounceExecutor.awaitTermination(SHUTDOWN_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                debounceExecutor.shutdownNow();
+            }
+            extractExecutor.shutdown();
+            if (!extractExecutor.awaitTermination(SHUTDOWN_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                extractExecutor.shutdownNow();
+            }
+            watchThread.join();
+        } catch (InterruptedException e) {
+            debounceExecutor.shutdownNow();
+            extractExecutor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+        pendingMap.clear();
+        this.flushCheckpoint();
+        log.info("停止监听目录 {}", watchDir);
+    }
+
+    private void watchLoop() {
+        while (running) {
+            WatchKey key;
+            try {
+                key = watchService.take();
+            } catch (InterruptedException | ClosedWatchServiceException e) {
+                break;
+            }
+            for (WatchEvent<?> event : key.pollEvents()) {
+                if (event.kind() == OVERFLOW) {
+                    // 事件丢失 重新扫描整个目录
+                    log.info("监听事件溢出 重新扫描目录");
+                    this.scanDirectory();
+                    continue;
+                }
+                Path file = watchDir.resolve((Path) event.context());
+                if (isWordFile(file)) {
+                    this.schedule(file);
+                }
+            }
+            if (!key.reset()) {
+                log.error("监听目录已失效 {}", watchDir);
+                break;
+            }
+        }
+    }
+
+    private void scanDirectory() {
+        this.pruneCheckpoint();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(watchDir)) {
+            for (Path file : stream) {
+                if (Files.isRegularFile(file) && isWordFile(file)) {
+                    this.schedule(file);
+                }
+            }
+        } catch (IOException e) {
+            log.error("扫描目录失败 {}", watchDir, e);
+        }
+    }
+
+    /**
+     * 每次文件变化都重新计时 等待debounceMillis内没有新的写入
+     */
+    private void schedule(Path file) {
+        if (!running) {
+            return;
+        }
+        // compute会持有ConcurrentHashMap的锁 io放在外面
+        long[] stat = stat(file);
+        try {
+            pendingMap.compute(file, (k, old) -> {
+                if (old != null) {
+                    old.cancel(false);
+                }
+                return debounceExecutor
+                        .schedule(() -> this.settle(file, stat), debounceMillis, TimeUnit.MILLISECONDS);
+            });
+        } catch (RejectedExecutionException e) {
+            // stop过程中 不再接收新文件
+            log.debug("已停止 忽略文件 {}", file);
+        }
+    }
+
+    /**
+     * 计时结束时大小和修改时间都没有变化 才认为文件写入完成
+     */
+    private void settle(Path file, long[] scheduledStat) {
+        long[] stat = stat(file);
+        if (stat == null) {
+            pendingMap.remove(file);
+            return;
+        }
+        if (scheduledStat == null || stat[0] != scheduledStat[0] || stat[1] != scheduledStat[1]
+                || inFlightSet.contains(file)) {
+            this.schedule(file);
+            return;
+        }
+        pendingMap.remove(file);
+        extractExecutor.execute(() -> this.process(file));
+    }
+
+    private void process(Path file) {
+        if (!inFlightSet.add(file)) {
+            this.schedule(file);
+            return;
+        }
+        try {
+            String key = file.toAbsolutePath().toString();
+            BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+            long lastModified = attributes.lastModifiedTime().toMillis();
+            IngestCheckpoint checkpoint = checkpointMap.get(key);
+            if (checkpoint != null && checkpoint.getSize() == attributes.size()
+                    && checkpoint.getLastModified() == lastModified) {
+                log.debug("文件未变化 跳过 {}", file);
+                return;
+            }
+            byte[] bytes = Files.readAllBytes(file);
+            String contentHash = DigestUtils.sha256Hex(bytes);
+            if (checkpoint == null || !contentHash.equals(checkpoint.getContentHash())) {
+                // 扩展名不可靠 按文件头判断doc还是docx
+                WordContent wordContent = wordExtractorService
+                        .extract(new BufferedInputStream(new ByteArrayInputStream(bytes)));
+                handler.accept(file, wordContent);
+            } else {
+                log.debug("文件内容未变化 跳过 {}", file);
+            }
+            checkpointMap.put(key, buildCheckpoint(key, bytes.length, lastModified, contentHash));
+            checkpointDirty.set(true);
+        } catch (NoSuchFileException e) {
+            log.info("文件已被删除 {}", file);
+        } catch (Exception e) {
+            // 不写checkpoint 文件下次变化或重启时会重新抽取
+            log.error("文件抽取失败 {}", file, e);
+        } finally {
+            inFlightSet.remove(file);
+        }
+    }
+
+    private void loadCheckpoint() throws IOException {
+        checkpointMap.clear();
+        if (!Files.exists(checkpointFile)) {
+            return;
+        }
+        try (BufferedReader reader = Files.newBufferedReader(checkpointFile, UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                // 格式 size mtime hash path 路径放最后
+                String[] fields = line.split(CHECKPOINT_SEPARATOR, 4);
+                if (fields.length < 4) {
+                    continue;
+                }
+                try {
+                    checkpointMap.put(fields[3], buildCheckpoint(fields[3], Long.parseLong(fields[0]),
+                            Long.parseLong(fields[1]), fields[2]));
+                } catch (NumberFormatException e) {
+                    log.info("checkpoint格式错误 {}", line);
+                }
+            }
+        }
+        log.info("读取checkpoint {}条", checkpointMap.size());
+    }
+
+    /**
+     * 去掉已经不存在的文件 避免checkpoint只增不减
+     */
+    private void pruneCheckpoint() {
+        if (checkpointMap.keySet().removeIf(path -> !Files.exists(Paths.get(path)))) {
+            checkpointDirty.set(true);
+        }
+    }
+
+    private void flushCheckpoint() {
+        if (checkpointDirty.getAndSet(false) && !this.saveCheckpoint()) {
+            checkpointDirty.set(true);
+        }
+    }
+
+    /**
+     * 先写临时文件再替换 避免进程中断时checkpoint文件损坏
+     */
+    private boolean saveCheckpoint() {
+        synchronized (checkpointLock) {
+            Path tmpFile = checkpointFile.resolveSibling(checkpointFile.getFileName() + ".tmp");
+            try {
+                try (BufferedWriter writer = Files.newBufferedWriter(tmpFile, UTF_8)) {
+                    for (IngestCheckpoint checkpoint : checkpointMap.values()) {
+                        writer.write(checkpoint.getSize() + CHECKPOINT_SEPARATOR + checkpoint.getLastModified()
+                                + CHECKPOINT_SEPARATOR + checkpoint.getContentHash() + CHECKPOINT_SEPARATOR
+                                + checkpoint.getPath());
+                        writer.newLine();
+                    }
+                }
+                try {
+                    Files.move(tmpFile, checkpointFile, StandardCopyOption.REPLACE_EXISTING,
+                            StandardCopyOption.ATOMIC_MOVE);
+                } catch (AtomicMoveNotSupportedException e) {
+                    Files.move(tmpFile, checkpointFile, StandardCopyOption.REPLACE_EXISTING);
+                }
+                return true;
+            } catch (IOException e) {
+                log.error("写入checkpoint失败 {}", checkpointFile, e);
+                return false;
+            }
+        }
+    }
+
+    private IngestCheckpoint buildCheckpoint(String path, long size, long lastModified, String contentHash) {
+        IngestCheckpoint checkpoint = new IngestCheckpoint();
+        checkpoint.setPath(path);
+        checkpoint.setSize(size);
+        checkpoint.setLastModified(lastModified);
+        checkpoint.setContentHash(contentHash);
+        return checkpoint;
+    }
+
+    /**
+     * 第一个是size，第二个是mtime 文件不存在时返回null
+     */
+    private static long[] stat(Path file) {
+        try {
+            BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+            return new long[]{attributes.size(), attributes.lastModifiedTime().toMillis()};
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    /**
+     * 只处理doc、docx 跳过word打开文件时生成的~$临时文件
+     */
+    private static boolean isWordFile(Path file) {
+        String name = file.getFileName().toString().toLowerCase();
+        return !name.startsWith("~$") && (name.endsWith(".doc") || name.endsWith(".docx"));
+    }
+}
@@ -0,0 +1,39 @@
+package org.yong.service.impl;
+
+import java.math.BigInteger;
+
+import org.apache.xmlbeans.XmlCursor;
+import org.openxmlformats.schemas.wordprocessingml.x2006.main.CTTbl;
+import org.openxmlformats.schemas.wordprocessingml.x2006.main.CTTblGrid;
+
+/**
+ * 测试中构造docx表格的公共方法
+ */
+final class DocxTestHelper {
+
+    private DocxTestHelper() {
+    }
+
+    /**
+     * 删除tblGrid 抽取时走单元格宽度法
+     */
+    static void removeTableGrid(CTTbl ctTbl) {
+        CTTblGrid tblGrid = ctTbl.getTblGrid();
+        if (tblGrid != null) {
+            XmlCursor cursor = tblGrid.newCursor();
+            cursor.removeXml();
+            cursor.dispose();
+        }
+    }
+
+    /**
+     * XWPFDocument.createTable生成的tblGrid列数不对 重建为cols个等宽的列
+     */
+    static void resetTableGrid(CTTbl ctTbl, int cols, int colWidth) {
+        removeTableGrid(ctTbl);
+        CTTblGrid tblGrid = ctTbl.addNewTblGrid();
+        for (int i = 0; i < cols; i++) {
+            tblGrid.addNewGridCol().setW(BigInteger.valueOf(colWidth));
+        }
+    }
+}
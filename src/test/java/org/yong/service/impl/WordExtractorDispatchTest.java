@@ -0,0 +1,128 @@
+package org.yong.service.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import org.apache.poi.hssf.usermodel.HSSFWorkbook;
+import org.apache.poi.poifs.filesystem.NPOIFSFileSystem;
+import org.apache.poi.xwpf.usermodel.XWPFDocument;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.yong.model.WordContent;
+
+/**
+ * extract按文件头分发 不依赖扩展名
+ */
+public class WordExtractorDispatchTest {
+
+    private static final String NOT_WORD_OLE2 = "该ole2文件不是word文档";
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private WordExtractorServiceImpl wordExtractorService;
+
+    @Before
+    public void setUp() {
+        wordExtractorService = new WordExtractorServiceImpl();
+    }
+
+    @Test
+    public void docxNamedAsDocShouldBeExtractedByXwpf() throws IOException {
+        XWPFDocument docx = new XWPFDocument();
+        docx.createParagraph().createRun().setText("扩展名是错的");
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        docx.write(out);
+        docx.close();
+        File file = temporaryFolder.newFile("wrong-extension.doc");
+        Files.write(file.toPath(), out.toByteArray());
+
+        WordContent wordContent = wordExtractorService.extract(file);
+        assertEquals("扩展名是错的\n", wordContent.getText());
+    }
+
+    /**
+     * 沙箱中无法生成真实的doc 只验证带WordDocument流的ole2会交给HWPF解析 而不是被当作非word拒绝
+     */
+    @Test
+    public void ole2WithWordDocumentStreamShouldBeParsedByHwpf() throws IOException {
+        NPOIFSFileSystem fs = new NPOIFSFileSystem();
+        fs.createDocument(new ByteArrayInputStream(new byte[1024]), "WordDocument");
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        fs.writeFilesystem(out);
+        fs.close();
+        try {
+            extract(out.toByteArray());
+            fail("空的WordDocument流不应解析成功");
+        } catch (Exception e) {
+            // 异常来自HWPF 而不是文件头判断
+            String message = String.valueOf(e.getMessage());
+            assertFalse(message, message.equals(NOT_WORD_OLE2) || message.startsWith("无法识别")
+                    || message.startsWith("不支持"));
+        }
+    }
+
+    @Test
+    public void xlsShouldBeRejectedAsNonWordOle2() throws IOException {
+        HSSFWorkbook workbook = new HSSFWorkbook();
+        workbook.createSheet("sheet");
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        workbook.write(out);
+        workbook.close();
+        assertRejected(out.toByteArray(), NOT_WORD_OLE2);
+    }
+
+    @Test
+    public void rtfNamedAsDocShouldBeRejected() {
+        assertRejected("{\\rtf1\\ansi 伪装成doc的rtf}".getBytes(StandardCharsets.UTF_8), "RTF");
+    }
+
+    @Test
+    public void flatXmlShouldBeRejected() {
+        assertRejected(("<?xml version=\"1.0\" encoding=\"UTF-8\"?><?mso-application progid=\"Word.Document\"?>"
+                + "<pkg:package xmlns:pkg=\"http://schemas.microsoft.com/office/2006/xmlPackage\"/>")
+                .getBytes(StandardCharsets.UTF_8), "XML");
+    }
+
+    @Test
+    public void flatXmlWithBomShouldBeRejected() {
+        byte[] xml = "<?xml version=\"1.0\"?><w:wordDocument/>".getBytes(StandardCharsets.UTF_8);
+        byte[] bytes = new byte[xml.length + 3];
+        bytes[0] = (byte) 0xEF;
+        bytes[1] = (byte) 0xBB;
+        bytes[2] = (byte) 0xBF;
+        System.arraycopy(xml, 0, bytes, 3, xml.length);
+        assertRejected(bytes, "XML");
+    }
+
+    @Test
+    public void htmlNamedAsDocShouldBeRejected() {
+        assertRejected("\r\n<!DOCTYPE html><html><body>网页另存为doc</body></html>".getBytes(StandardCharsets.UTF_8),
+                "HTML");
+    }
+
+    private WordContent extract(byte[] bytes) throws IOException {
+        return wordExtractorService.extract(new BufferedInputStream(new ByteArrayInputStream(bytes)));
+    }
+
+    private void assertRejected(byte[] bytes, String expectedMessage) {
+        try {
+            extract(bytes);
+            fail("应拒绝该格式");
+        } catch (IOException e) {
+            assertTrue(e.getMessage(), e.getMessage().contains(expectedMessage));
+        }
+    }
+}
@@ -0,0 +1,272 @@
+package org.yong.service.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigInteger;
+import java.util.List;
+
+import org.apache.poi.xwpf.usermodel.XWPFDocument;
+import org.apache.poi.xwpf.usermodel.XWPFParagraph;
+import org.apache.poi.xwpf.usermodel.XWPFRun;
+import org.apache.poi.xwpf.usermodel.XWPFTable;
+import org.apache.poi.xwpf.usermodel.XWPFTableCell;
+import org.junit.Before;
+import org.junit.Test;
+import org.openxmlformats.schemas.wordprocessingml.x2006.main.CTRPr;
+import org.openxmlformats.schemas.wordprocessingml.x2006.main.CTStyle;
+import org.openxmlformats.schemas.wordprocessingml.x2006.main.CTStyles;
+import org.openxmlformats.schemas.wordprocessingml.x2006.main.STOnOff;
+import org.openxmlformats.schemas.wordprocessingml.x2006.main.STStyleType;
+import org.yong.model.WordContent;
+import org.yong.model.WordParagraph;
+import org.yong.model.WordTableCell;
+
+/**
+ * docx字号、粗体、斜体的抽取 优先级 run直接格式 > 字符样式 > 段落样式 > 文档默认
+ */
+public class WordExtractorFontTest {
+
+    private static final float DELTA = 0.001F;
+
+    private WordExtractorServiceImpl wordExtractorService;
+
+    @Before
+    public void setUp() {
+        wordExtractorService = new WordExtractorServiceImpl();
+    }
+
+    @Test
+    public void shouldUseDocDefaultsThroughDefaultParagraphStyle() throws IOException {
+        XWPFDocument docx = newStyledDocx();
+        docx.createParagraph().createRun().setText("默认字号");
+
+        WordParagraph wordParagraph = extract(docx).getWordParagraphList().get(0);
+        assertEquals("默认字号", wordParagraph.getText());
+        assertEquals(10.5F, wordParagraph.getFontSize(), DELTA);
+        assertFalse(wordParagraph.getBold());
+        assertFalse(wordParagraph.getItalic());
+    }
+
+    @Test
+    public void shouldInheritParagraphStyleThroughBasedOn() throws IOException {
+        XWPFDocument docx = newStyledDocx();
+        XWPFParagraph paragraph = docx.createParagraph();
+        paragraph.setStyle("Heading");
+        paragraph.createRun().setText("标题");
+
+        WordParagraph wordParagraph = extract(docx).getWordParagraphList().get(0);
+        // 字号、粗体来自Base 斜体来自Heading
+        assertEquals(16F, wordParagraph.getFontSize(), DELTA);
+        assertTrue(wordParagraph.getBold());
+        assertTrue(wordParagraph.getItalic());
+    }
+
+    @Test
+    public void characterStyleShouldOverrideParagraphStyle() throws IOException {
+        XWPFDocument docx = newStyledDocx();
+        XWPFParagraph paragraph = docx.createParagraph();
+        paragraph.setStyle("Plain");
+        XWPFRun run = paragraph.createRun();
+        run.setText("强调");
+        rPr(run).addNewRStyle().setVal("Strong");
+
+        WordParagraph wordParagraph = extract(docx).getWordParagraphList().get(0);
+        assertEquals(14F, wordParagraph.getFontSize(), DELTA);
+        assertTrue(wordParagraph.getBold());
+        assertFalse(wordParagraph.getItalic());
+    }
+
+    @Test
+    public void directFormattingShouldOverrideStyles() throws IOException {
+        XWPFDocument docx = newStyledDocx();
+        XWPFParagraph paragraph = docx.createParagraph();
+        paragraph.setStyle("Heading");
+        XWPFRun run = paragraph.createRun();
+        run.setText("正文");
+        rPr(run).addNewRStyle().setVal("Strong");
+        run.setFontSize(10);
+        run.setBold(false);
+
+        WordParagraph wordParagraph = extract(docx).getWordParagraphList().get(0);
+        assertEquals(10F, wordParagraph.getFontSize(), DELTA);
+        assertFalse(wordParagraph.getBold());
+        assertTrue(wordParagraph.getItalic());
+    }
+
+    @Test
+    public void dominantFontShouldBeWeightedByCharacterCount() throws IOException {
+        XWPFDocument docx = newStyledDocx();
+        XWPFParagraph paragraph = docx.createParagraph();
+        XWPFRun longRun = paragraph.createRun();
+        longRun.setText("一二三四五六");
+        longRun.setFontSize(20);
+        longRun.setBold(true);
+        XWPFRun shortRun = paragraph.createRun();
+        shortRun.setText("七八");
+        shortRun.setFontSize(9);
+        shortRun.setItalic(true);
+
+        XWPFParagraph halfParagraph = docx.createParagraph();
+        XWPFRun boldRun = halfParagraph.createRun();
+        boldRun.setText("一二");
+        boldRun.setBold(true);
+        halfParagraph.createRun().setText("三四");
+
+        List<WordParagraph> wordParagraphList = extract(docx).getWordParagraphList();
+        WordParagraph wordParagraph = wordParagraphList.get(0);
+        assertEquals(20F, wordParagraph.getFontSize(), DELTA);
+        assertTrue(wordParagraph.getBold());
+        assertFalse(wordParagraph.getItalic());
+        // 正好一半不算粗体
+        assertFalse(wordParagraphList.get(1).getBold());
+    }
+
+    @Test
+    public void tableCellShouldCarryFont() throws IOException {
+        XWPFDocument docx = newStyledDocx();
+        XWPFTable table = docx.createTable(1, 2);
+        XWPFTableCell boldCell = table.getRow(0).getCell(0);
+        XWPFRun run = boldCell.getParagraphs().get(0).createRun();
+        run.setText("粗体");
+        run.setBold(true);
+        run.setFontSize(9);
+        table.getRow(0).getCell(1).setText("默认");
+        fixTableGrid(table, 2);
+
+        List<WordTableCell> cellList = extract(docx).getWordTableList().get(0).getWordTableCellList();
+        assertEquals(2, cellList.size());
+        assertEquals(9F, cellList.get(0).getFontSize(), DELTA);
+        assertTrue(cellList.get(0).getBold());
+        assertEquals(10.5F, cellList.get(1).getFontSize(), DELTA);
+        assertFalse(cellList.get(1).getBold());
+    }
+
+    @Test
+    public void defaultParagraphStyleShouldNotDependOnStyleId() throws IOException {
+        XWPFDocument docx = newLocalizedDocx();
+        docx.createParagraph().createRun().setText("德文版word");
+
+        WordParagraph wordParagraph = extract(docx).getWordParagraphList().get(0);
+        assertEquals(10.5F, wordParagraph.getFontSize(), DELTA);
+        assertTrue(wordParagraph.getBold());
+    }
+
+    @Test
+    public void tableOnlyDocxShouldUseDefaultParagraphStyle() throws IOException {
+        XWPFDocument docx = newLocalizedDocx();
+        XWPFTable table = docx.createTable(1, 2);
+        table.getRow(0).getCell(0).setText("只有表格");
+        table.getRow(0).getCell(1).setText("没有正文");
+        fixTableGrid(table, 2);
+        // createTable前后都不会留下正文段落
+        assertTrue(docx.getParagraphs().isEmpty());
+
+        List<WordTableCell> cellList = extract(docx).getWordTableList().get(0).getWordTableCellList();
+        for (WordTableCell cell : cellList) {
+            assertEquals(10.5F, cell.getFontSize(), DELTA);
+            assertTrue(cell.getBold());
+        }
+    }
+
+    @Test
+    public void docxWithoutStylesShouldFallBackToDefaults() throws IOException {
+        XWPFDocument docx = new XWPFDocument();
+        assertNull(docx.getStyles());
+        docx.createParagraph().createRun().setText("没有样式");
+        XWPFRun run = docx.createParagraph().createRun();
+        run.setText("直接格式");
+        run.setFontSize(15);
+        run.setItalic(true);
+
+        List<WordParagraph> wordParagraphList = extract(docx).getWordParagraphList();
+        assertEquals(2, wordParagraphList.size());
+        assertEquals(12F, wordParagraphList.get(0).getFontSize(), DELTA);
+        assertFalse(wordParagraphList.get(0).getBold());
+        assertEquals(15F, wordParagraphList.get(1).getFontSize(), DELTA);
+        assertTrue(wordParagraphList.get(1).getItalic());
+    }
+
+    private WordContent extract(XWPFDocument docx) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        docx.write(out);
+        docx.close();
+        return wordExtractorService.extract(new BufferedInputStream(new ByteArrayInputStream(out.toByteArray())));
+    }
+
+    /**
+     * docDefaults 10.5磅
+     * Normal 默认段落样式 无字体
+     * Base 16磅粗体 Heading基于Base 加斜体 Plain无字体
+     * Strong 字符样式 14磅粗体
+     */
+    private static XWPFDocument newStyledDocx() {
+        CTStyles ctStyles = CTStyles.Factory.newInstance();
+        ctStyles.addNewDocDefaults().addNewRPrDefault().addNewRPr().addNewSz().setVal(BigInteger.valueOf(21));
+
+        CTStyle normal = addStyle(ctStyles, "Normal", STStyleType.PARAGRAPH);
+        normal.setDefault(STOnOff.TRUE);
+
+        CTStyle base = addStyle(ctStyles, "Base", STStyleType.PARAGRAPH);
+        base.addNewRPr().addNewSz().setVal(BigInteger.valueOf(32));
+        base.getRPr().addNewB();
+
+        CTStyle heading = addStyle(ctStyles, "Heading", STStyleType.PARAGRAPH);
+        heading.addNewBasedOn().setVal("Base");
+        heading.addNewRPr().addNewI();
+
+        addStyle(ctStyles, "Plain", STStyleType.PARAGRAPH).addNewBasedOn().setVal("Normal");
+
+        CTStyle strong = addStyle(ctStyles, "Strong", STStyleType.CHARACTER);
+        strong.addNewRPr().addNewSz().setVal(BigInteger.valueOf(28));
+        strong.getRPr().addNewB().setVal(STOnOff.ON);
+
+        XWPFDocument docx = new XWPFDocument();
+        docx.createStyles().setStyles(ctStyles);
+        return docx;
+    }
+
+    /**
+     * 默认段落样式id为Standard(德文版word) docDefaults 10.5磅 默认段落样式粗体
+     */
+    private static XWPFDocument newLocalizedDocx() {
+        CTStyles ctStyles = CTStyles.Factory.newInstance();
+        ctStyles.addNewDocDefaults().addNewRPrDefault().addNewRPr().addNewSz().setVal(BigInteger.valueOf(21));
+        CTStyle standard = addStyle(ctStyles, "Standard", STStyleType.PARAGRAPH);
+        standard.setDefault(STOnOff.TRUE);
+        standard.addNewRPr().addNewB();
+
+        XWPFDocument docx = new XWPFDocument();
+        docx.createStyles().setStyles(ctStyles);
+        return docx;
+    }
+
+    private static CTStyle addStyle(CTStyles ctStyles, String styleId, STStyleType.Enum type) {
+        CTStyle style = ctStyles.addNewStyle();
+        style.setStyleId(styleId);
+        style.setType(type);
+        return style;
+    }
+
+    private static CTRPr rPr(XWPFRun run) {
+        return run.getCTR().isSetRPr() ? run.getCTR().getRPr() : run.getCTR().addNewRPr();
+    }
+
+    /**
+     * 抽取docx表格时需要tcPr 以及和列数一致的tblGrid
+     */
+    private static void fixTableGrid(XWPFTable table, int cols) {
+        for (XWPFTableCell cell : table.getRow(0).getTableCells()) {
+            if (cell.getCTTc().getTcPr() == null) {
+                cell.getCTTc().addNewTcPr();
+            }
+        }
+        DocxTestHelper.resetTableGrid(table.getCTTbl(), cols, 2000);
+    }
+}
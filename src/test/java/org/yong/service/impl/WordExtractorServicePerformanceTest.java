@@ -0,0 +1,212 @@
+package org.yong.service.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.math.BigInteger;
+import java.util.List;
+
+import org.apache.poi.xwpf.usermodel.XWPFDocument;
+import org.apache.poi.xwpf.usermodel.XWPFTable;
+import org.junit.Before;
+import org.junit.Test;
+import org.openxmlformats.schemas.wordprocessingml.x2006.main.CTRow;
+import org.openxmlformats.schemas.wordprocessingml.x2006.main.CTTbl;
+import org.openxmlformats.schemas.wordprocessingml.x2006.main.CTTblWidth;
+import org.openxmlformats.schemas.wordprocessingml.x2006.main.CTTc;
+import org.openxmlformats.schemas.wordprocessingml.x2006.main.CTTcPr;
+import org.openxmlformats.schemas.wordprocessingml.x2006.main.STMerge;
+import org.yong.model.WordContent;
+import org.yong.model.WordTable;
+import org.yong.model.WordTableCell;
+
+/**
+ * 抽取热点路径的内存分配和耗时预算 防止无意的修改让性能成倍变差
+ * 预算约为JDK 8上实测值的2倍 改动热点路径后需要重新测量
+ */
+public class WordExtractorServicePerformanceTest {
+
+    /**
+     * fillSpan每个单元格允许分配的字节数 实测77
+     */
+    private static final long FILL_SPAN_BYTES_PER_CELL = 160L;
+
+    /**
+     * 文字规整每个字符允许分配的字节数 实测48
+     */
+    private static final long NORMALIZE_BYTES_PER_CHAR = 96L;
+
+    /**
+     * 整篇docx抽取每个单元格允许的耗时 纳秒 实测110000~170000
+     */
+    private static final long EXTRACT_NANOS_PER_CELL = 250_000L;
+
+    private static final int ROWS = 60;
+
+    private static final int COLS = 6;
+
+    private static final int GRID_COL_WIDTH = 2000;
+
+    /**
+     * 每3行一组 第2行前两列gridSpan合并 最后一列第1、2行vMerge合并 每组16个单元格
+     */
+    private static final int EXPECTED_CELLS = ROWS / 3 * 16;
+
+    private static final int WARM_UP = 5;
+
+    private static final int ITERATIONS = 20;
+
+    private com.sun.management.ThreadMXBean threadMXBean;
+
+    private WordExtractorServiceImpl wordExtractorService;
+
+    @Before
+    public void setUp() {
+        java.lang.management.ThreadMXBean mxBean = ManagementFactory.getThreadMXBean();
+        // 非HotSpot的JVM没有按线程统计分配的接口 跳过
+        assumeTrue(mxBean instanceof com.sun.management.ThreadMXBean
+                && ((com.sun.management.ThreadMXBean) mxBean).isThreadAllocatedMemorySupported());
+        threadMXBean = (com.sun.management.ThreadMXBean) mxBean;
+        threadMXBean.setThreadAllocatedMemoryEnabled(true);
+        wordExtractorService = new WordExtractorServiceImpl();
+    }
+
+    @Test
+    public void fillSpanWithGridShouldStayWithinAllocationBudget() throws IOException {
+        assertFillSpanBudget(buildDocx(true));
+    }
+
+    @Test
+    public void fillSpanWithoutGridShouldStayWithinAllocationBudget() throws IOException {
+        assertFillSpanBudget(buildDocx(false));
+    }
+
+    @Test
+    public void normalizeTextShouldStayWithinAllocationBudget() {
+        StringBuilder builder = new StringBuilder();
+        while (builder.length() < 20000) {
+            builder.append("　合同编号 AB-123\t金额： 一万元\u000B\r\r甲方 乙方\b");
+        }
+        String text = builder.toString();
+        for (int i = 0; i < WARM_UP; i++) {
+            wordExtractorService.normalizeText(text, true);
+        }
+        long bytes = Long.MAX_VALUE;
+        for (int i = 0; i < ITERATIONS; i++) {
+            long before = allocatedBytes();
+            wordExtractorService.normalizeText(text, true);
+            bytes = Math.min(bytes, allocatedBytes() - before);
+        }
+        long bytesPerChar = bytes / text.length();
+        assertTrue("normalizeText每字符分配" + bytesPerChar + "字节", bytesPerChar <= NORMALIZE_BYTES_PER_CHAR);
+    }
+
+    @Test
+    public void extractWithGridShouldStayWithinLatencyBudget() throws IOException {
+        assertExtractLatencyBudget(buildDocx(true));
+    }
+
+    @Test
+    public void extractWithoutGridShouldStayWithinLatencyBudget() throws IOException {
+        assertExtractLatencyBudget(buildDocx(false));
+    }
+
+    private void assertFillSpanBudget(byte[] docx) throws IOException {
+        WordTable wordTable = extractSingleTable(docx);
+        for (int i = 0; i < WARM_UP; i++) {
+            wordExtractorService.fillSpan(wordTable);
+        }
+        long bytes = Long.MAX_VALUE;
+        for (int i = 0; i < ITERATIONS; i++) {
+            long before = allocatedBytes();
+            wordExtractorService.fillSpan(wordTable);
+            bytes = Math.min(bytes, allocatedBytes() - before);
+        }
+        long bytesPerCell = bytes / wordTable.getWordTableCellList().size();
+        assertTrue("fillSpan每单元格分配" + bytesPerCell + "字节", bytesPerCell <= FILL_SPAN_BYTES_PER_CELL);
+    }
+
+    private void assertExtractLatencyBudget(byte[] docx) throws IOException {
+        for (int i = 0; i < WARM_UP; i++) {
+            extractSingleTable(docx);
+        }
+        long nanos = Long.MAX_VALUE;
+        for (int i = 0; i < ITERATIONS; i++) {
+            long start = System.nanoTime();
+            extractSingleTable(docx);
+            nanos = Math.min(nanos, System.nanoTime() - start);
+        }
+        long nanosPerCell = nanos / EXPECTED_CELLS;
+        assertTrue("docx抽取每单元格耗时" + nanosPerCell + "ns", nanosPerCell <= EXTRACT_NANOS_PER_CELL);
+    }
+
+    /**
+     * 抽取并检查生成的表格确实覆盖了gridSpan和vMerge
+     */
+    private WordTable extractSingleTable(byte[] docx) throws IOException {
+        WordContent wordContent = wordExtractorService
+                .extract(new BufferedInputStream(new ByteArrayInputStream(docx)));
+        assertEquals(1, wordContent.getWordTableList().size());
+        WordTable wordTable = wordContent.getWordTableList().get(0);
+        List<WordTableCell> cellList = wordTable.getWordTableCellList();
+        assertEquals(EXPECTED_CELLS, cellList.size());
+        assertTrue(cellList.stream().anyMatch(cell -> cell.getColspan() == 2));
+        assertTrue(cellList.stream().anyMatch(cell -> cell.getRowspan() == 2));
+        return wordTable;
+    }
+
+    private long allocatedBytes() {
+        return threadMXBean.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    /**
+     * 生成一个ROWS*COLS的docx表格 withGrid为false时删除tblGrid 走单元格宽度法
+     */
+    private static byte[] buildDocx(boolean withGrid) throws IOException {
+        XWPFDocument docx = new XWPFDocument();
+        docx.createParagraph().createRun().setText("　性能测试 文档\t正文");
+        XWPFTable table = docx.createTable(ROWS, COLS);
+        for (int i = 0; i < ROWS; i++) {
+            for (int j = 0; j < COLS; j++) {
+                table.getRow(i).getCell(j).setText("单元格" + i + "-" + j);
+            }
+        }
+        CTTbl ctTbl = table.getCTTbl();
+        for (int i = 0; i < ROWS; i++) {
+            CTRow ctRow = ctTbl.getTrArray(i);
+            if (i % 3 == 1) {
+                ctRow.removeTc(1);
+            }
+            for (int j = 0; j < ctRow.sizeOfTcArray(); j++) {
+                CTTc ctTc = ctRow.getTcArray(j);
+                CTTcPr tcPr = ctTc.getTcPr() == null ? ctTc.addNewTcPr() : ctTc.getTcPr();
+                int span = i % 3 == 1 && j == 0 ? 2 : 1;
+                if (span > 1) {
+                    tcPr.addNewGridSpan().setVal(BigInteger.valueOf(span));
+                }
+                CTTblWidth tcW = tcPr.isSetTcW() ? tcPr.getTcW() : tcPr.addNewTcW();
+                tcW.setW(BigInteger.valueOf(GRID_COL_WIDTH * span));
+                if (j == ctRow.sizeOfTcArray() - 1 && i % 3 == 0) {
+                    tcPr.addNewVMerge().setVal(STMerge.RESTART);
+                } else if (j == ctRow.sizeOfTcArray() - 1 && i % 3 == 1) {
+                    tcPr.addNewVMerge();
+                }
+            }
+        }
+        if (withGrid) {
+            DocxTestHelper.resetTableGrid(ctTbl, COLS, GRID_COL_WIDTH);
+        } else {
+            DocxTestHelper.removeTableGrid(ctTbl);
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        docx.write(out);
+        docx.close();
+        return out.toByteArray();
+    }
+}
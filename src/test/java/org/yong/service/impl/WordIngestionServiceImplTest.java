@@ -0,0 +1,259 @@
+package org.yong.service.impl;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+import java.util.function.BooleanSupplier;
+
+import org.apache.poi.util.IOUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.yong.model.WordContent;
+import org.yong.service.WordExtractorService;
+
+/**
+ * 用临时目录和很短的debounce验证增量抽取 抽取器用桩代替 文件内容即抽取出的文字
+ */
+public class WordIngestionServiceImplTest {
+
+    private static final long DEBOUNCE_MILLIS = 200L;
+
+    private static final long TIMEOUT_MILLIS = 10000L;
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private final List<String> extractedList = new CopyOnWriteArrayList<>();
+
+    private Path watchDir;
+
+    private Path checkpointFile;
+
+    private WordIngestionServiceImpl wordIngestionService;
+
+    @Before
+    public void setUp() throws IOException {
+        watchDir = temporaryFolder.newFolder("watch").toPath();
+        checkpointFile = temporaryFolder.getRoot().toPath().resolve("checkpoint.tsv");
+    }
+
+    @After
+    public void tearDown() {
+        if (wordIngestionService != null) {
+            wordIngestionService.stop();
+        }
+    }
+
+    @Test
+    public void fileBeingWrittenShouldWaitUntilSettled() throws Exception {
+        this.start();
+        Path file = watchDir.resolve("writing.docx");
+        Files.write(file, "part".getBytes(UTF_8));
+        // 写入间隔小于debounce 写完之前不应抽取
+        for (int i = 0; i < 10; i++) {
+            Thread.sleep(DEBOUNCE_MILLIS / 2);
+            Files.write(file, "-part".getBytes(UTF_8), StandardOpenOption.APPEND);
+            assertTrue(extractedList.isEmpty());
+        }
+        waitFor(() -> !extractedList.isEmpty());
+        Thread.sleep(DEBOUNCE_MILLIS * 3);
+        assertEquals(1, extractedList.size());
+        assertEquals(new String(Files.readAllBytes(file), UTF_8), extractedList.get(0));
+    }
+
+    @Test
+    public void restartWithUnchangedCheckpointShouldSkipFiles() throws Exception {
+        Path file = watchDir.resolve("done.docx");
+        Files.write(file, "done".getBytes(UTF_8));
+        this.start();
+        waitFor(() -> extractedList.size() == 1);
+        wordIngestionService.stop();
+
+        extractedList.clear();
+        this.start();
+        Thread.sleep(DEBOUNCE_MILLIS * 5);
+        assertTrue(extractedList.isEmpty());
+    }
+
+    @Test
+    public void touchedFileWithSameHashShouldOnlyUpdateCheckpoint() throws Exception {
+        Path file = watchDir.resolve("touched.docx");
+        Files.write(file, "same".getBytes(UTF_8));
+        this.start();
+        waitFor(() -> extractedList.size() == 1);
+        wordIngestionService.stop();
+
+        long touchedMillis = Files.getLastModifiedTime(file).toMillis() + 60000L;
+        Files.setLastModifiedTime(file, FileTime.fromMillis(touchedMillis));
+        extractedList.clear();
+        this.start();
+        waitFor(() -> readCheckpoint().contains("\t" + touchedMillis + "\t"));
+        assertTrue(extractedList.isEmpty());
+    }
+
+    @Test
+    public void changedContentShouldBeExtractedAgain() throws Exception {
+        Path file = watchDir.resolve("changed.docx");
+        Files.write(file, "first".getBytes(UTF_8));
+        this.start();
+        waitFor(() -> extractedList.size() == 1);
+
+        Files.write(file, "second version".getBytes(UTF_8));
+        waitFor(() -> extractedList.size() == 2);
+        assertEquals("second version", extractedList.get(1));
+    }
+
+    @Test
+    public void deletedFileShouldBePrunedFromCheckpoint() throws Exception {
+        Path file = watchDir.resolve("deleted.docx");
+        Files.write(file, "deleted".getBytes(UTF_8));
+        this.start();
+        waitFor(() -> readCheckpoint().contains(file.toString()));
+        wordIngestionService.stop();
+
+        Files.delete(file);
+        this.start();
+        waitFor(() -> !readCheckpoint().contains(file.toString()));
+    }
+
+    @Test
+    public void stopDuringExtractionShouldNotWaitForShutdownTimeout() throws Exception {
+        Path file = watchDir.resolve("slow.docx");
+        Files.write(file, "slow".getBytes(UTF_8));
+        CountDownLatch extracting = new CountDownLatch(1);
+        this.start((path, wordContent) -> {
+            extracting.countDown();
+            try {
+                Thread.sleep(DEBOUNCE_MILLIS * 2);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            extractedList.add(wordContent.getText());
+        });
+        assertTrue(extracting.await(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS));
+        long begin = System.currentTimeMillis();
+        wordIngestionService.stop();
+        assertTrue(System.currentTimeMillis() - begin < TIMEOUT_MILLIS);
+        // stop返回时checkpoint已经写入
+        assertTrue(readCheckpoint().contains(file.toString()));
+    }
+
+    @Test
+    public void stopShouldWaitForExtractionRunningOnDebounceThread() throws Exception {
+        for (int i = 0; i < 3; i++) {
+            Files.write(watchDir.resolve("queued" + i + ".docx"), ("queued" + i).getBytes(UTF_8));
+        }
+        CountDownLatch callerRuns = new CountDownLatch(1);
+        // 1个抽取线程、队列长度1 第3个文件由debounce线程执行
+        wordIngestionService = new WordIngestionServiceImpl(new StubWordExtractorService(), watchDir,
+                checkpointFile, 1, 1, DEBOUNCE_MILLIS, (path, wordContent) -> {
+                    if (Thread.currentThread().getName().equals("word-ingestion-debounce")) {
+                        callerRuns.countDown();
+                        sleepUninterruptibly(DEBOUNCE_MILLIS * 3);
+                    } else {
+                        sleepUninterruptibly(DEBOUNCE_MILLIS / 2);
+                    }
+                    extractedList.add(wordContent.getText());
+                });
+        wordIngestionService.start();
+        assertTrue(callerRuns.await(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS));
+        wordIngestionService.stop();
+        assertEquals(3, extractedList.size());
+        String checkpoint = readCheckpoint();
+        for (int i = 0; i < 3; i++) {
+            assertTrue(checkpoint.contains(watchDir.resolve("queued" + i + ".docx").toString()));
+        }
+    }
+
+    private void start() throws IOException {
+        this.start((path, wordContent) -> extractedList.add(wordContent.getText()));
+    }
+
+    private void start(BiConsumer<Path, WordContent> handler) throws IOException {
+        wordIngestionService = new WordIngestionServiceImpl(new StubWordExtractorService(), watchDir,
+                checkpointFile, 2, DEBOUNCE_MILLIS, handler);
+        wordIngestionService.start();
+    }
+
+    private String readCheckpoint() {
+        try {
+            return Files.exists(checkpointFile) ? new String(Files.readAllBytes(checkpointFile), UTF_8) : "";
+        } catch (IOException e) {
+            return "";
+        }
+    }
+
+    private static void sleepUninterruptibly(long millis) {
+        long deadline = System.currentTimeMillis() + millis;
+        boolean interrupted = false;
+        for (long left = millis; left > 0; left = deadline - System.currentTimeMillis()) {
+            try {
+                Thread.sleep(left);
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void waitFor(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+        while (!condition.getAsBoolean()) {
+            assertTrue("等待超时", System.currentTimeMillis() < deadline);
+            Thread.sleep(20);
+        }
+    }
+
+    private static class StubWordExtractorService implements WordExtractorService {
+
+        @Override
+        public WordContent adaptDocxToPdfTable(File file) throws IOException {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public WordContent adaptDocToPdfTable(File file) throws IOException {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public WordContent adaptDocxToPdfTable(BufferedInputStream in) throws IOException {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public WordContent adaptDocToPdfTable(BufferedInputStream in) throws IOException {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public WordContent extract(File file) throws IOException {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public WordContent extract(BufferedInputStream in) throws IOException {
+            WordContent wordContent = new WordContent();
+            wordContent.setText(new String(IOUtils.toByteArray(in), UTF_8));
+            return wordContent;
+        }
+    }
+}